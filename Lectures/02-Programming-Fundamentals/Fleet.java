@@ -0,0 +1,222 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Keeps track of which cars in a whole fleet are available, and who has the others.
+//
+// Car.isAvailable() looks at one car at a time, and compares Strings with ==, which
+// only works by accident (see the lecture on Interacting Objects). Here we instead:
+//  - give every car a number, 0 .. size()-1,
+//  - keep one bit per car, 1 = available, packed 64 cars to a long,
+//  - give every owner a number once (interning), so we only ever compare ints.
+//
+// Checking out a car clears its bit with compareAndSet(). If two threads try to take
+// the same car at the same time, only one of them can succeed, so a car is never
+// given to two owners. Finding a free car looks at 64 cars per step.
+//
+// Owner ids are never given back: every name that has ever checked out a car stays
+// in the fleet's owner table for as long as the Fleet object lives. That is fine when
+// the owners are a fairly small, stable set (staff, depots, rental desks). A fleet
+// that sees an endless stream of new customer names should use a fresh Fleet now and
+// then, or key owners by something that is reused, such as an account number.
+public class Fleet {
+  public static final int NO_OWNER = 0;
+
+  private final int mySize;
+  private final AtomicLongArray myFree;     // bit set = car is available
+  private final AtomicIntegerArray myOwners; // owner id per car, NO_OWNER if none
+
+  private final ConcurrentHashMap<String, Integer> myOwnerIds = new ConcurrentHashMap<>();
+  private volatile AtomicReferenceArray<String> myOwnerNames = new AtomicReferenceArray<>(16);
+  private int myNextOwnerId = 1; // Only used inside the synchronized registerOwner()
+
+  public Fleet(int theNumberOfCars) {
+    mySize = theNumberOfCars;
+    myFree = new AtomicLongArray((theNumberOfCars + 63) / 64);
+    myOwners = new AtomicIntegerArray(theNumberOfCars);
+
+    // All cars start out available. The last word may only be partly used.
+    for (int w = 0; w < myFree.length(); w++) {
+      int carsInWord = Math.min(64, theNumberOfCars - w * 64);
+      myFree.set(w, (64 == carsInWord) ? -1L : (1L << carsInWord) - 1);
+    }
+  }
+
+  public int size() {
+    return mySize;
+  }
+
+  // The same name always gives the same id, so ids can be compared with ==.
+  // Ids are kept forever, see the class comment.
+  public int ownerId(String theOwner) {
+    if (null == theOwner || theOwner.isEmpty()) {
+      return NO_OWNER;
+    }
+    return myOwnerIds.computeIfAbsent(theOwner, this::registerOwner);
+  }
+
+  // Like ownerId(), but never registers a new name. Unknown names give NO_OWNER.
+  private int knownOwnerId(String theOwner) {
+    Integer id = (null == theOwner) ? null : myOwnerIds.get(theOwner);
+    return (null == id) ? NO_OWNER : id;
+  }
+
+  public String ownerName(int theOwnerId) {
+    AtomicReferenceArray<String> names = myOwnerNames;
+    return (NO_OWNER == theOwnerId || theOwnerId >= names.length()) ? null : names.get(theOwnerId);
+  }
+
+  // Called at most once per name, from inside computeIfAbsent().
+  private synchronized Integer registerOwner(String theOwner) {
+    int id = myNextOwnerId++;
+    AtomicReferenceArray<String> names = myOwnerNames;
+    if (id >= names.length()) {
+      AtomicReferenceArray<String> bigger = new AtomicReferenceArray<>(names.length() * 2);
+      for (int i = 0; i < names.length(); i++) {
+        bigger.set(i, names.get(i));
+      }
+      names = bigger;
+    }
+    names.set(id, theOwner);
+    myOwnerNames = names;
+    return id;
+  }
+
+  public boolean isAvailable(int theCar) {
+    checkCar(theCar);
+    return 0 != (myFree.get(theCar >>> 6) & (1L << theCar));
+  }
+
+  // Returns the owner's name, or null if the car is available.
+  // Right after a checkout the owner may briefly still read as null.
+  public String getOwner(int theCar) {
+    checkCar(theCar);
+    return ownerName(myOwners.get(theCar));
+  }
+
+  // Try to check out one particular car. Returns false if someone else has it.
+  public boolean checkout(int theCar, String theOwner) {
+    checkCar(theCar);
+    if (null == theOwner || theOwner.isEmpty()) {
+      throw new IllegalArgumentException("A car must be checked out by someone");
+    }
+    if (!isAvailable(theCar)) {
+      return false; // Taken already; no need to register theOwner for nothing
+    }
+    return tryClaim(theCar >>> 6, 1L << theCar, theCar, ownerId(theOwner));
+  }
+
+  // Check out any available car. Returns its number, or -1 if the whole fleet is taken.
+  // Each thread starts looking at a random place, so that threads do not all fight over
+  // the first free car.
+  public int checkoutAny(String theOwner) {
+    int owner = ownerId(theOwner);
+    if (NO_OWNER == owner) {
+      throw new IllegalArgumentException("A car must be checked out by someone");
+    }
+
+    int words = myFree.length();
+    if (0 == words) {
+      return -1;
+    }
+    int start = ThreadLocalRandom.current().nextInt(words);
+    for (int i = 0; i < words; i++) {
+      int w = (start + i) % words;
+      long bits;
+      while (0 != (bits = myFree.get(w))) {
+        long lowest = Long.lowestOneBit(bits);
+        int car = w * 64 + Long.numberOfTrailingZeros(lowest);
+        if (tryClaim(w, lowest, car, owner)) {
+          return car;
+        }
+        // Somebody else changed this word; look at it again.
+      }
+    }
+    return -1;
+  }
+
+  private boolean tryClaim(int theWord, long theBit, int theCar, int theOwner) {
+    long bits;
+    do {
+      bits = myFree.get(theWord);
+      if (0 == (bits & theBit)) {
+        return false; // Already taken
+      }
+    } while (!myFree.compareAndSet(theWord, bits, bits & ~theBit));
+
+    // Only the thread whose compareAndSet cleared the bit gets here.
+    myOwners.set(theCar, theOwner);
+    return true;
+  }
+
+  // Return a car. Only its current owner may do so.
+  // A name that has never checked out anything cannot own the car, so it is only
+  // looked up here and never added to the owner table.
+  public boolean returnCar(int theCar, String theOwner) {
+    checkCar(theCar);
+    int owner = knownOwnerId(theOwner);
+    if (NO_OWNER == owner || !myOwners.compareAndSet(theCar, owner, NO_OWNER)) {
+      return false;
+    }
+
+    int w = theCar >>> 6;
+    long bit = 1L << theCar;
+    long bits;
+    do {
+      bits = myFree.get(w);
+    } while (!myFree.compareAndSet(w, bits, bits | bit));
+    return true;
+  }
+
+  // The first available car with a number >= theFrom, or -1 if there is none.
+  public int nextAvailable(int theFrom) {
+    int from = Math.max(0, theFrom);
+    if (from >= mySize) {
+      return -1;
+    }
+    int w = from >>> 6;
+    long bits = myFree.get(w) & (-1L << from); // Ignore cars before from in the first word
+    while (true) {
+      if (0 != bits) {
+        return w * 64 + Long.numberOfTrailingZeros(bits);
+      }
+      if (++w == myFree.length()) {
+        return -1;
+      }
+      bits = myFree.get(w);
+    }
+  }
+
+  // While other threads are checking out cars this is only an estimate,
+  // since each word is read at a slightly different time.
+  public int countAvailable() {
+    int count = 0;
+    for (int w = 0; w < myFree.length(); w++) {
+      count += Long.bitCount(myFree.get(w));
+    }
+    return count;
+  }
+
+  private void checkCar(int theCar) {
+    if (0 > theCar || theCar >= mySize) {
+      throw new IndexOutOfBoundsException("No car number " + theCar + " in a fleet of " + mySize);
+    }
+  }
+
+  public static void main(String[] args) {
+    Fleet f = new Fleet(100);
+    System.out.println(f.countAvailable() + " cars available");
+
+    f.checkout(0, "Ada");
+    int car = f.checkoutAny("Bob");
+    System.out.println("Bob got car " + car + ", owned by " + f.getOwner(car));
+    System.out.println("Can Bob take Ada's car? " + f.checkout(0, "Bob"));
+    System.out.println("First free car is " + f.nextAvailable(0));
+    System.out.println(f.countAvailable() + " cars available");
+
+    f.returnCar(0, "Ada");
+    System.out.println("Car 0 available again? " + f.isAvailable(0));
+  }
+}
@@ -0,0 +1,167 @@
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Many threads checking cars in and out of one large Fleet at the same time.
+//
+//   java FleetBenchmark [cars [threads [seconds]]]
+//
+// 1. Every thread grabs cars until the fleet is empty. Each car must have been
+//    handed out exactly once, or checkout is broken.
+// 2. Every thread checks out a car and returns it, over and over, and we count
+//    how many checkouts per second the fleet manages. This is done with the whole
+//    fleet free (threads rarely meet), and then with so few cars that all threads
+//    compete for the same word of bits, and with a large, almost fully booked fleet.
+// 3. Time the "count available" and "next free car" queries on a full fleet,
+//    after a warm-up.
+public class FleetBenchmark {
+
+  // Run theWork on theThreads threads and wait for all of them. If any thread
+  // fails, its exception is thrown here, so that a broken run reports no numbers.
+  private static void runThreads(int theThreads, Runnable theWork) throws InterruptedException {
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    ArrayList<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < theThreads; i++) {
+      Thread t = new Thread(theWork);
+      t.setUncaughtExceptionHandler((thread, e) -> failure.compareAndSet(null, e));
+      threads.add(t);
+    }
+    for (Thread t : threads) { t.start(); }
+    for (Thread t : threads) { t.join(); }
+
+    if (null != failure.get()) {
+      throw new IllegalStateException("A benchmark thread failed", failure.get());
+    }
+  }
+
+  private static void checkNoDoubleCheckout(int theCars, int theThreads) throws InterruptedException {
+    Fleet f = new Fleet(theCars);
+    AtomicIntegerArray timesGiven = new AtomicIntegerArray(theCars);
+
+    long start = System.nanoTime();
+    runThreads(theThreads, () -> {
+      String me = Thread.currentThread().getName();
+      int car;
+      while (-1 != (car = f.checkoutAny(me))) {
+        timesGiven.incrementAndGet(car);
+      }
+    });
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    for (int car = 0; car < theCars; car++) {
+      if (1 != timesGiven.get(car)) {
+        throw new IllegalStateException("Car " + car + " was handed out " + timesGiven.get(car) + " times");
+      }
+    }
+    System.out.printf("Emptied %,d cars with %d threads in %.3f s, every car handed out exactly once%n",
+                      theCars, theThreads, seconds);
+  }
+
+  // Every thread checks out a car and returns it, over and over, for theMillis.
+  private static void measureCheckoutReturn(String theLabel, Fleet theFleet, int theThreads, long theMillis) throws InterruptedException {
+    int availableBefore = theFleet.countAvailable();
+    AtomicLong checkouts = new AtomicLong();
+    long deadline = System.currentTimeMillis() + theMillis;
+
+    runThreads(theThreads, () -> {
+      String me = Thread.currentThread().getName();
+      long mine = 0;
+      while (System.currentTimeMillis() < deadline) {
+        for (int i = 0; i < 1000; i++) {
+          int car = theFleet.checkoutAny(me);
+          if (-1 == car) {
+            continue; // Every car is taken by the other threads right now; try again
+          }
+          if (!theFleet.returnCar(car, me)) {
+            throw new IllegalStateException("Could not return car " + car);
+          }
+          mine++;
+        }
+      }
+      checkouts.addAndGet(mine);
+    });
+
+    System.out.printf("%-44s %,12d checkout+return pairs/s with %d threads%n",
+                      theLabel, checkouts.get() * 1000 / theMillis, theThreads);
+    if (availableBefore != theFleet.countAvailable()) {
+      throw new IllegalStateException("Cars went missing: " + theFleet.countAvailable() + " of " + availableBefore + " available");
+    }
+  }
+
+  // A fleet of theCars where only the cars in [theFirstFree, theFirstFree + theFree) are available.
+  private static Fleet mostlyTaken(int theCars, int theFirstFree, int theFree) {
+    Fleet f = new Fleet(theCars);
+    for (int car = 0; car < theCars; car++) {
+      if (car < theFirstFree || car >= theFirstFree + theFree) {
+        f.checkout(car, "parked");
+      }
+    }
+    return f;
+  }
+
+  private static void measureQueries(int theCars) {
+    Fleet f = mostlyTaken(theCars, theCars - 1, 1);
+    // Only the very last car is free, so nextAvailable(0) has to scan the whole fleet.
+
+    // Run the queries untimed first, so that the JIT has compiled them before we
+    // start the clock. Otherwise we mostly measure the interpreter.
+    long sink = 0;
+    for (int i = 0; i < 2000; i++) {
+      sink += f.countAvailable();
+      sink += f.nextAvailable(0);
+    }
+
+    int rounds = 1000;
+    long start = System.nanoTime();
+    for (int i = 0; i < rounds; i++) {
+      sink += f.countAvailable();
+    }
+    long countNanos = (System.nanoTime() - start) / rounds;
+
+    start = System.nanoTime();
+    for (int i = 0; i < rounds; i++) {
+      sink += f.nextAvailable(0);
+    }
+    long nextNanos = (System.nanoTime() - start) / rounds;
+
+    System.out.printf("countAvailable() over %,d cars: %,d us%n", theCars, countNanos / 1000);
+    System.out.printf("nextAvailable(0) worst case:   %,d us%n", nextNanos / 1000);
+    if (0 > sink) { // Use the results, so that the JIT cannot throw the loops away
+      System.out.println(sink);
+    }
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    int cars = (0 < args.length) ? Integer.parseInt(args[0]) : 4_000_000;
+    int threads = (1 < args.length) ? Integer.parseInt(args[1]) : 16;
+    int seconds = (2 < args.length) ? Integer.parseInt(args[2]) : 2;
+
+    if (1 > cars || 1 > threads) {
+      System.err.println("Need at least one car and one thread");
+      return;
+    }
+
+    checkNoDoubleCheckout(cars, threads);
+    long millis = seconds * 1000L;
+
+    // All cars free: threads start at random words, so they rarely meet.
+    measureCheckoutReturn("all " + cars + " cars free", new Fleet(cars), threads, millis);
+
+    // Contended: a fleet of 64 cars is a single word, so every checkout and every
+    // return from every thread is a compareAndSet on the same long.
+    measureCheckoutReturn("64 cars, all in one word", new Fleet(64), threads, millis);
+
+    // Worse still: fewer cars than threads, so some threads always come up empty.
+    int few = Math.max(1, threads / 2);
+    measureCheckoutReturn(few + " cars for " + threads + " threads", new Fleet(few), threads, millis);
+
+    // A large fleet that is almost fully booked: threads compete for the same few
+    // cars, and each checkout first has to scan past all the taken ones.
+    if (128 <= cars) {
+      measureCheckoutReturn(cars + " cars, only 64 free", mostlyTaken(cars, cars / 2 / 64 * 64, 64), threads, millis);
+    }
+
+    measureQueries(cars);
+  }
+}
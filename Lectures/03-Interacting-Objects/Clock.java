@@ -7,11 +7,19 @@ public class Clock {
   }
 
   public void update() {
-    if (seconds.update()) {
+    ClockUpdateEvent event = new ClockUpdateEvent();
+    event.begin();
+    boolean minuteRolledOver = seconds.update();
+    if (minuteRolledOver) {
       if (minutes.update()) {
         hours.update();
       }
     }
+    event.end();
+    if (event.shouldCommit()) {
+      event.minuteRolledOver = minuteRolledOver;
+      event.commit();
+    }
   }
 
   public void display() {
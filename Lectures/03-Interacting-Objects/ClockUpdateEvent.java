@@ -0,0 +1,14 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// A JDK Flight Recorder event for one tick of the Clock.
+// When no recording is running, begin() and commit() do (close to) nothing.
+@Name("se.bth.example.ClockUpdate")
+@Label("Clock Update")
+@Category("PA1482")
+public class ClockUpdateEvent extends Event {
+  @Label("Minute Rolled Over")
+  boolean minuteRolledOver;
+}
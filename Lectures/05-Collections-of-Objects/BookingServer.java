@@ -0,0 +1,265 @@
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// A small line-based booking server in front of Customer and Ticket.
+// Uses virtual threads on Java 21 or later, and ordinary threads on older JDKs.
+//
+// Compile and run:   javac *.java && java BookingServer 8080
+// Try it by hand:    nc localhost 8080
+//
+// The protocol is one request per line, and one response line per request:
+//   BOOK <customer> <movie>;<showtime>   ->  OK <number of tickets>
+//   COUNT <customer>                     ->  OK <number of tickets>
+//   LIST <customer>                      ->  OK <ticket> | <ticket> | ...
+//   DESCRIBE <customer> <ticketNumber>   ->  OK <ticket>
+//   QUIT                                 ->  (closes the connection)
+// Anything that goes wrong gives a line starting with ERR instead.
+//
+// Clients may pipeline, i.e. send many requests without waiting for the
+// answers. Responses always come back in the same order as the requests.
+public class BookingServer {
+  // No request needs anywhere near this much. A client that sends more without a
+  // newline is answered with an error and disconnected, instead of us buffering
+  // its line forever.
+  public static final int MAX_LINE_LENGTH = 4096;
+
+  private ConcurrentHashMap<String, Customer> myCustomers = new ConcurrentHashMap<>();
+  private ServerSocket myServerSocket;
+
+  public BookingServer(int thePort) throws IOException {
+    myServerSocket = new ServerSocket(thePort, 16384); // Large backlog, so that many clients can connect at once
+  }
+
+  public int getPort() {
+    return myServerSocket.getLocalPort();
+  }
+
+  // Virtual threads arrived in Java 21. They are looked up by name so that this file
+  // still compiles and runs on older JDKs, where we fall back to ordinary threads.
+  // That works the same way, but does not stretch to as many connections.
+  static boolean hasVirtualThreads() {
+    try {
+      Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  static ExecutorService newThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+  // Accept connections until the server socket is closed.
+  // Every connection gets its own (virtual) thread, so blocking reads are cheap
+  // and we do not need a selector or callbacks to serve thousands of clients.
+  public void serve() {
+    ExecutorService connections = newThreadPerTaskExecutor();
+    try {
+      while (!myServerSocket.isClosed()) {
+        Socket client = myServerSocket.accept();
+        connections.submit(() -> handleConnection(client));
+      }
+    } catch (IOException e) {
+      if (!myServerSocket.isClosed()) {
+        System.err.println("Error accepting connections: " + e.getMessage());
+      }
+    } finally {
+      connections.shutdown(); // Open connections are served until their clients leave
+    }
+  }
+
+  public void close() throws IOException {
+    myServerSocket.close();
+  }
+
+  private void handleConnection(Socket theClient) {
+    try (Socket client = theClient;
+         BufferedWriter out = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8))) {
+      client.setTcpNoDelay(true);
+      LineReader in = new LineReader(client.getInputStream());
+
+      // Responses are only flushed when the reader is about to wait for more input.
+      // That way a whole batch of pipelined requests is answered with a single write,
+      // but a client never waits for an answer that is sitting in our buffer.
+      try {
+        String line;
+        while ((line = in.readLine(out)) != null) {
+          if (line.equals("QUIT")) {
+            break;
+          }
+          out.write(handleRequest(line));
+          out.newLine();
+        }
+      } catch (LineTooLongException e) {
+        // Answer after any responses still waiting in out; then the connection is closed.
+        out.write("ERR line too long");
+        out.newLine();
+      }
+      out.flush();
+    } catch (IOException e) {
+      // The client went away. Nothing more to do for this connection.
+    }
+  }
+
+  private static class LineTooLongException extends IOException {
+    LineTooLongException() {
+      super("Line longer than " + MAX_LINE_LENGTH + " bytes");
+    }
+  }
+
+  // Reads lines like BufferedReader.readLine(), but flushes the given Flushable
+  // before every read that could block. BufferedReader.ready() cannot be used for
+  // this: it is true as soon as *part* of the next line has arrived.
+  private static class LineReader {
+    private InputStream myIn;
+    private byte[] myBuffer = new byte[8192];
+    private int myStart = 0;
+    private int myEnd = 0;
+    private ByteArrayOutputStream myPartialLine = new ByteArrayOutputStream();
+
+    LineReader(InputStream theIn) {
+      myIn = theIn;
+    }
+
+    public String readLine(Flushable theBeforeBlocking) throws IOException {
+      while (true) {
+        for (int i = myStart; i < myEnd; i++) {
+          if ('\n' == myBuffer[i]) {
+            myPartialLine.write(myBuffer, myStart, i - myStart);
+            myStart = i + 1;
+            checkLength();
+            return takeLine();
+          }
+        }
+
+        // No complete line in the buffer; keep what we have and read some more.
+        myPartialLine.write(myBuffer, myStart, myEnd - myStart);
+        myStart = 0;
+        myEnd = 0;
+        checkLength();
+        if (0 == myIn.available()) {
+          theBeforeBlocking.flush();
+        }
+        int count = myIn.read(myBuffer);
+        if (-1 == count) {
+          return (0 == myPartialLine.size()) ? null : takeLine();
+        }
+        myEnd = count;
+      }
+    }
+
+    private void checkLength() throws LineTooLongException {
+      if (MAX_LINE_LENGTH < myPartialLine.size()) {
+        throw new LineTooLongException();
+      }
+    }
+
+    private String takeLine() {
+      String line = myPartialLine.toString(StandardCharsets.UTF_8);
+      myPartialLine.reset();
+      return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+  }
+
+  public String handleRequest(String theRequest) {
+    String[] parts = theRequest.split(" ", 3);
+    if (2 > parts.length) {
+      return "ERR malformed request: " + theRequest;
+    }
+
+    String command = parts[0];
+    String customerName = parts[1];
+
+    try {
+      switch (command) {
+      case "BOOK": return book(customerName, 3 == parts.length ? parts[2] : "");
+      case "COUNT": return count(customerName);
+      case "LIST": return list(customerName);
+      case "DESCRIBE": return describe(customerName, 3 == parts.length ? parts[2] : "");
+      default: return "ERR unknown command: " + command;
+      }
+    } catch (NumberFormatException e) {
+      return "ERR not a ticket number: " + e.getMessage();
+    }
+  }
+
+  // Customer is not thread safe, so each customer is locked while it is used.
+  // Different customers can still be served in parallel.
+  private String book(String theCustomer, String theTicket) {
+    String[] ticketParts = theTicket.split(";", 2);
+    if (2 != ticketParts.length) {
+      return "ERR expected <movie>;<showtime>";
+    }
+
+    Customer c = myCustomers.computeIfAbsent(theCustomer, name -> new Customer());
+    synchronized (c) {
+      c.addTicket(new Ticket(ticketParts[0], ticketParts[1]));
+      return "OK " + c.countTickets();
+    }
+  }
+
+  private String count(String theCustomer) {
+    Customer c = myCustomers.get(theCustomer);
+    if (null == c) {
+      return "OK 0";
+    }
+    synchronized (c) {
+      return "OK " + c.countTickets();
+    }
+  }
+
+  private String list(String theCustomer) {
+    Customer c = myCustomers.get(theCustomer);
+    if (null == c) {
+      return "OK";
+    }
+
+    StringBuilder sb = new StringBuilder("OK");
+    synchronized (c) {
+      for (int i = 0; i < c.countTickets(); i++) {
+        sb.append(0 == i ? " " : " | ");
+        sb.append(c.getTicketDetails(i));
+      }
+    }
+    return sb.toString();
+  }
+
+  private String describe(String theCustomer, String theTicketNumber) {
+    int ticketNumber = Integer.parseInt(theTicketNumber.trim());
+    Customer c = myCustomers.get(theCustomer);
+    String details = null;
+    if (null != c) {
+      synchronized (c) {
+        details = c.getTicketDetails(ticketNumber);
+      }
+    }
+
+    if (null == details) {
+      return "ERR no ticket " + ticketNumber + " for " + theCustomer;
+    }
+    return "OK " + details;
+  }
+
+  public static void main(String[] args) throws IOException {
+    int port = (0 < args.length) ? Integer.parseInt(args[0]) : 8080;
+    BookingServer server = new BookingServer(port);
+    System.out.println("Booking server listening on port " + server.getPort()
+                       + (hasVirtualThreads() ? " (virtual threads)" : " (platform threads)"));
+    server.serve();
+  }
+}
@@ -20,10 +20,17 @@ public class Customer {
   }                                       // your internal and private attributes
 
   public void describeTicket(int ticketNumber) {
+    String details = getTicketDetails(ticketNumber);
+    if (null != details) {
+      System.out.println(details);
+    }
+  }
+
+  public String getTicketDetails(int ticketNumber) {
     if (0 <= ticketNumber   // We start at index 0
         && myTickets.size() > ticketNumber) { // size() is just outside of the collection.
-      String details = myTickets.get(ticketNumber).toString();
-      System.out.println(details);
+      return myTickets.get(ticketNumber).toString();
     }
+    return null; // No such ticket
   }
 }
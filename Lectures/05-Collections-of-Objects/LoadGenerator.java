@@ -0,0 +1,190 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pushes booking traffic through a BookingServer and reports latency and throughput.
+// Uses virtual threads on Java 21 or later, and ordinary threads on older JDKs.
+//
+//   java LoadGenerator [port [connections [requestsPerConnection [pipelineDepth]]]]
+//
+// Port 0 starts an embedded BookingServer, so that no separate process is needed.
+// The defaults are 10000 connections with 100 requests each, sent in batches of 10.
+// Remember that every connection is a file descriptor in both the client and the
+// server, so check `ulimit -n` before going much higher.
+public class LoadGenerator {
+  private String myHost;
+  private int myPort;
+  private int myRequests;
+  private int myDepth;
+  private AtomicInteger myErrors = new AtomicInteger();
+  private long myElapsedNanos;
+
+  public LoadGenerator(String theHost, int thePort, int theRequests, int theDepth) {
+    myHost = theHost;
+    myPort = thePort;
+    myRequests = theRequests;
+    myDepth = theDepth;
+  }
+
+  // Run all connections and return every measured latency, in nanoseconds.
+  // The time it took, from when all clients were connected, is in getElapsedSeconds().
+  public long[] run(int theConnections) throws InterruptedException {
+    ArrayList<long[]> allLatencies = new ArrayList<>();
+    CountDownLatch connected = new CountDownLatch(theConnections);
+    CountDownLatch go = new CountDownLatch(1);
+    long start;
+
+    ExecutorService clients = BookingServer.newThreadPerTaskExecutor();
+    try {
+      for (int i = 0; i < theConnections; i++) {
+        long[] latencies = new long[myRequests];
+        Arrays.fill(latencies, -1); // -1 means "never answered"
+        allLatencies.add(latencies);
+        String customer = "customer" + i;
+        clients.submit(() -> runConnection(customer, latencies, connected, go));
+      }
+
+      // Wait until everyone is connected, so that we measure bookings and not the TCP handshake.
+      connected.await();
+      go.countDown();
+      start = System.nanoTime();
+    } finally {
+      clients.shutdown();
+    }
+    clients.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS); // Wait for all clients to finish
+    myElapsedNanos = System.nanoTime() - start;
+
+    long[] merged = new long[theConnections * myRequests];
+    int pos = 0;
+    for (long[] latencies : allLatencies) {
+      for (long l : latencies) {
+        if (0 <= l) {
+          merged[pos++] = l;
+        }
+      }
+    }
+    return Arrays.copyOf(merged, pos);
+  }
+
+  private void runConnection(String theCustomer, long[] theLatencies, CountDownLatch theConnected, CountDownLatch theGo) {
+    Socket socket = null;
+    try {
+      socket = new Socket(myHost, myPort);
+      socket.setTcpNoDelay(true);
+    } catch (IOException e) {
+      myErrors.addAndGet(myRequests);
+    } finally {
+      theConnected.countDown();
+    }
+    if (null == socket) {
+      return;
+    }
+
+    int answered = 0;
+    try (Socket s = socket;
+         BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+         BufferedWriter out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+      theGo.await();
+
+      int sent = 0;
+      while (sent < myRequests) {
+        int batch = Math.min(myDepth, myRequests - sent);
+
+        // Pipelining: write the whole batch before reading any of the answers.
+        long start = System.nanoTime();
+        for (int i = 0; i < batch; i++) {
+          out.write(makeRequest(theCustomer, sent + i));
+          out.newLine();
+        }
+        out.flush();
+
+        for (int i = 0; i < batch; i++) {
+          String response = in.readLine();
+          if (null == response) {
+            throw new IOException("Server closed the connection");
+          }
+          theLatencies[sent + i] = System.nanoTime() - start;
+          answered++;
+          if (!response.startsWith("OK")) {
+            myErrors.incrementAndGet();
+          }
+        }
+        sent += batch;
+      }
+
+      out.write("QUIT");
+      out.newLine();
+      out.flush();
+    } catch (IOException | InterruptedException e) {
+      myErrors.addAndGet(myRequests - answered); // Everything not yet answered is lost
+    }
+  }
+
+  // One booking followed by some reads. Booking first means DESCRIBE always has a ticket to look at.
+  private String makeRequest(String theCustomer, int theSequence) {
+    switch (theSequence % 4) {
+    case 0: return "BOOK " + theCustomer + " Spartacus;19:00 tonight";
+    case 1: return "COUNT " + theCustomer;
+    case 2: return "DESCRIBE " + theCustomer + " 0";
+    default: return "LIST " + theCustomer;
+    }
+  }
+
+  public int getErrors() {
+    return myErrors.get();
+  }
+
+  public double getElapsedSeconds() {
+    return myElapsedNanos / 1_000_000_000.0;
+  }
+
+  private static double percentileMillis(long[] theSorted, double thePercentile) {
+    if (0 == theSorted.length) {
+      return 0;
+    }
+    int index = (int) Math.ceil(thePercentile / 100.0 * theSorted.length) - 1;
+    return theSorted[Math.max(0, index)] / 1_000_000.0;
+  }
+
+  public static void main(String[] args) throws Exception {
+    int port = (0 < args.length) ? Integer.parseInt(args[0]) : 8080;
+    int connections = (1 < args.length) ? Integer.parseInt(args[1]) : 10000;
+    int requests = (2 < args.length) ? Integer.parseInt(args[2]) : 100;
+    int depth = (3 < args.length) ? Integer.parseInt(args[3]) : 10;
+
+    BookingServer embedded = null;
+    if (0 == port) {
+      embedded = new BookingServer(0);
+      port = embedded.getPort();
+      new Thread(embedded::serve).start();
+    }
+
+    LoadGenerator gen = new LoadGenerator("localhost", port, requests, depth);
+    long[] latencies = gen.run(connections);
+    double seconds = gen.getElapsedSeconds();
+
+    Arrays.sort(latencies);
+    System.out.println("Java:             " + Runtime.version()
+                       + (BookingServer.hasVirtualThreads() ? " (virtual threads)" : " (platform threads)"));
+    System.out.println("Connections:      " + connections);
+    System.out.println("Requests:         " + latencies.length + " (pipeline depth " + depth + ")");
+    System.out.println("Errors:           " + gen.getErrors());
+    System.out.printf("Throughput:       %.0f requests/s%n", latencies.length / seconds);
+    System.out.printf("Latency p50:      %.3f ms%n", percentileMillis(latencies, 50));
+    System.out.printf("Latency p99:      %.3f ms%n", percentileMillis(latencies, 99));
+
+    if (null != embedded) {
+      embedded.close();
+    }
+  }
+}
@@ -0,0 +1,22 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// A JDK Flight Recorder event for one Player.fight(): how long it took to
+// pick a Behaviour, and which one was picked. Note that the two println traces
+// per candidate are inside the selection loop, so they are part of the measured
+// time too, and usually the biggest part of it.
+@Name("se.bth.example.PlayerFight")
+@Label("Player Fight")
+@Category("PA1482")
+public class FightEvent extends Event {
+  @Label("Behaviours Considered")
+  int candidates;
+
+  @Label("Chosen Behaviour")
+  String chosen;
+
+  @Label("Health After")
+  int health;
+}
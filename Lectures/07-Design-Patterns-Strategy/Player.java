@@ -15,6 +15,8 @@ public class Player {
   }
 
   public void fight() {
+    FightEvent event = new FightEvent();
+    event.begin();
     Behaviour bestBehaviour = myBehaviours.get(0);
     int bestHealth = myHealth + bestBehaviour.predictSelfHealth();
     int bestDamage = bestBehaviour.predictEffect();;
@@ -31,8 +33,15 @@ public class Player {
         bestBehaviour = b;
       }
     }
+    event.end(); // Only the selection is timed, not executing the chosen behaviour
 
     myHealth += bestBehaviour.executeBehaviour();
+    if (event.shouldCommit()) {
+      event.candidates = myBehaviours.size();
+      event.chosen = bestBehaviour.getDescription();
+      event.health = myHealth;
+      event.commit();
+    }
     System.out.println("You " + bestBehaviour.getDescription());
     System.out.println("Your health is now " + myHealth);
   }
@@ -0,0 +1,138 @@
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Many readers and one writer working on the same Document at the same time.
+//
+//   java ConcurrentDocumentDemo [maxReaders [lines [seconds]]]
+//
+// First the Document is checked against a plain ArrayList doing the same edits.
+// Then, for 1, 2, 4, ... readers, it measures how many snapshots per second the
+// readers manage while a writer keeps adding and removing lines. Since readers
+// never take a lock, the total should grow with the number of readers (up to
+// the number of cores on the machine).
+public class ConcurrentDocumentDemo {
+
+  private static void checkAgainstArrayList(int theEdits) {
+    Random r = new Random(1482);
+    Document d = new Document();
+    ArrayList<String> expected = new ArrayList<>();
+
+    for (int i = 0; i < theEdits; i++) {
+      if (expected.isEmpty() || r.nextInt(3) != 0) {
+        int pos = r.nextInt(expected.size() + 1);
+        d.addLine(pos, "line " + i);
+        expected.add(pos, "line " + i);
+      } else {
+        int pos = r.nextInt(expected.size());
+        d.removeLine(pos);
+        expected.remove(pos);
+      }
+    }
+
+    ArrayList<String> actual = new ArrayList<>();
+    for (String line : d.snapshot()) {
+      actual.add(line);
+    }
+    if (!actual.equals(expected)) {
+      throw new IllegalStateException("Document differs from ArrayList after " + theEdits + " edits");
+    }
+    System.out.println("Document agrees with ArrayList after " + theEdits + " edits");
+  }
+
+  private static long measure(int theReaders, int theLines, long theMillis) throws InterruptedException {
+    Document d = new Document();
+    for (int i = 0; i < theLines; i++) {
+      d.addLine(i, "line " + i);
+    }
+
+    AtomicBoolean running = new AtomicBoolean(true);
+    LongAdder snapshots = new LongAdder();
+    ArrayList<Thread> threads = new ArrayList<>();
+
+    // The writer keeps the number of lines roughly constant
+    threads.add(new Thread(() -> {
+      Random r = new Random();
+      while (running.get()) {
+        d.addLine(r.nextInt(theLines), "edited");
+        d.removeLine(r.nextInt(theLines));
+      }
+    }));
+
+    for (int i = 0; i < theReaders; i++) {
+      threads.add(new Thread(() -> {
+        Random r = new Random();
+        long lastVersion = -1;
+        long round = 0;
+        while (running.get()) {
+          PersistentLines snap = d.snapshot();
+
+          // Versions only ever move forward, never back to something older
+          if (snap.getVersion() < lastVersion) {
+            throw new IllegalStateException("Saw version " + snap.getVersion() + " after " + lastVersion);
+          }
+          lastVersion = snap.getVersion();
+
+          int size = snap.size();
+          for (int j = 0; j < 100; j++) {
+            snap.get(r.nextInt(size));
+          }
+
+          // Now and then, walk the whole snapshot while the writer keeps editing.
+          // A consistent snapshot gives exactly size() lines, none of them edits made since.
+          if (0 == round++ % 100) {
+            int count = 0;
+            for (String line : snap) {
+              count++;
+            }
+            if (count != size) {
+              throw new IllegalStateException("Snapshot of " + size + " lines iterated " + count + " lines");
+            }
+          }
+          snapshots.increment();
+        }
+      }));
+    }
+
+    // An exception in a thread would otherwise just end that thread and the demo
+    // would carry on. Remember the first one, stop everybody, and fail below.
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    for (Thread t : threads) {
+      t.setUncaughtExceptionHandler((thread, e) -> {
+        failure.compareAndSet(null, e);
+        running.set(false);
+      });
+    }
+
+    for (Thread t : threads) { t.start(); }
+    Thread.sleep(theMillis);
+    running.set(false);
+    for (Thread t : threads) { t.join(); }
+
+    if (null != failure.get()) {
+      throw new IllegalStateException("A reader or the writer failed", failure.get());
+    }
+
+    return snapshots.sum() * 1000 / theMillis;
+  }
+
+  public static void main(String [] args) throws InterruptedException {
+    int maxReaders = (0 < args.length) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+    int lines = (1 < args.length) ? Integer.parseInt(args[1]) : 100_000;
+    int seconds = (2 < args.length) ? Integer.parseInt(args[2]) : 2;
+
+    if (1 > maxReaders || 1 > lines || 1 > seconds) {
+      System.err.println("Need at least one reader, one line and one second");
+      return;
+    }
+
+    checkAgainstArrayList(100_000);
+
+    for (int readers = 1; readers <= maxReaders; readers *= 2) {
+      long perSecond = measure(readers, lines, seconds * 1000L);
+      System.out.printf("%3d readers: %,12d snapshots/s (each reads 100 random lines)%n", readers, perSecond);
+    }
+  }
+}
@@ -1,15 +1,36 @@
-import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+// The lines of the Document are kept as an immutable PersistentLines object.
+// Writers build a new version and publish it with compareAndSet(); if another
+// writer got there first they simply try again on top of that version.
+// Readers never wait: snapshot() returns whatever version is current, and that
+// version will never change under their feet, however long they iterate over it.
 public class Document {
-  private ArrayList<String> contents = new ArrayList<>();
+  private AtomicReference<PersistentLines> contents = new AtomicReference<>(PersistentLines.EMPTY);
   Document() { }
 
+  public PersistentLines snapshot() {
+    return contents.get();
+  }
+
   // We handle any error (by not doing anything)
   // and return false. The 
   public boolean addLine(int position, String text) {
+    DocumentEditEvent event = new DocumentEditEvent();
+    event.begin();
     if ( true /* can line be added */) {
-      contents.add(position, text);
+      PersistentLines current;
+      do {
+        current = contents.get();
+        if (0 > position || position > current.size()) {
+          recordEdit(event, "add", position, false);
+          throw new IndexOutOfBoundsException("Trying to add a line outside Document bounds");
+        }
+      } while (!contents.compareAndSet(current, current.insert(position, text)));
+      recordEdit(event, "add", position, true);
       return true; // The line was added
     } else {
+      recordEdit(event, "add", position, false);
       return false; // The line was not added
     }
   }
@@ -20,10 +41,29 @@ public class Document {
   // will know what happened.
   // There is no longer any need for a return value.
   public void removeLine(int position) {
-    if (position > contents.size()) {
-      throw new IndexOutOfBoundsException("Trying to remove a line outside Document bounds");
-    } else {
-      contents.remove(position);
+    DocumentEditEvent event = new DocumentEditEvent();
+    event.begin();
+    PersistentLines current;
+    do {
+      current = contents.get();
+      if (0 > position || position >= current.size()) {
+        recordEdit(event, "remove", position, false);
+        throw new IndexOutOfBoundsException("Trying to remove a line outside Document bounds");
+      }
+    } while (!contents.compareAndSet(current, current.remove(position)));
+    recordEdit(event, "remove", position, true);
+  }
+
+  // Edits are cheap, so we only count them here. The JFR event carries the timing.
+  private void recordEdit(DocumentEditEvent theEvent, String theOperation, int thePosition, boolean theSucceeded) {
+    Metrics.counter(theSucceeded ? "document.edits" : "document.failed.edits").increment();
+
+    theEvent.end();
+    if (theEvent.shouldCommit()) {
+      theEvent.operation = theOperation;
+      theEvent.position = thePosition;
+      theEvent.succeeded = theSucceeded;
+      theEvent.commit();
     }
   }
 
@@ -0,0 +1,19 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// A JDK Flight Recorder event for one edit (add or remove) of a Document.
+@Name("se.bth.example.DocumentEdit")
+@Label("Document Edit")
+@Category({"PA1482", "Document"})
+public class DocumentEditEvent extends Event {
+  @Label("Operation")
+  String operation;
+
+  @Label("Position")
+  int position;
+
+  @Label("Succeeded")
+  boolean succeeded;
+}
@@ -7,6 +7,9 @@ import java.util.ArrayList;
 public class Inputter {
 
   public ArrayList<String> oldSchool(String filename) {
+    InputterReadEvent event = new InputterReadEvent();
+    event.begin();
+    long start = System.nanoTime();
     ArrayList<String> contents = new ArrayList<String>();
     try (
       FileReader file = new FileReader(filename);
@@ -20,10 +23,14 @@ public class Inputter {
       System.out.println(e);
     }
 
+    recordRead(event, "oldSchool", filename, contents.size(), start);
     return contents;
   }
 
   public ArrayList<String> hipster(String filename) {
+    InputterReadEvent event = new InputterReadEvent();
+    event.begin();
+    long start = System.nanoTime();
     ArrayList<String> contents = new ArrayList<String>();
     Path path = Paths.get(filename);
 
@@ -36,9 +43,26 @@ public class Inputter {
       System.out.println(e);        
     }
 
+    recordRead(event, "hipster", filename, contents.size(), start);
     return contents;
   }
 
+  // Metrics are always collected. The JFR event is only filled in and committed
+  // if a recording is running and wants it, so that we do not pay for the
+  // string fields when nobody is listening.
+  private void recordRead(InputterReadEvent theEvent, String theMethod, String theFilename, int theLines, long theStart) {
+    Metrics.histogram("inputter.read.nanos").record(System.nanoTime() - theStart);
+    Metrics.counter("inputter.lines").add(theLines);
+
+    theEvent.end();
+    if (theEvent.shouldCommit()) {
+      theEvent.method = theMethod;
+      theEvent.filename = theFilename;
+      theEvent.lines = theLines;
+      theEvent.commit();
+    }
+  }
+
   public static void main(String [] args) {
     Inputter in = new Inputter();
     ArrayList<String> contents;
@@ -49,5 +73,6 @@ public class Inputter {
     contents = in.hipster("tst2.txt");
     for (String l : contents) { System.out.println(l); }
 
+    Metrics.report();
   }
 }
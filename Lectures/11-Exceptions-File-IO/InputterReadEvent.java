@@ -0,0 +1,20 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// A JDK Flight Recorder event for one file read in Inputter.
+// When no recording is running, begin() and commit() do (close to) nothing.
+@Name("se.bth.example.InputterRead")
+@Label("Inputter Read")
+@Category({"PA1482", "File I/O"})
+public class InputterReadEvent extends Event {
+  @Label("Method")
+  String method;
+
+  @Label("File Name")
+  String filename;
+
+  @Label("Lines Read")
+  int lines;
+}
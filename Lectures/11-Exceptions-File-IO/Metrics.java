@@ -0,0 +1,86 @@
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// A very small in-process registry of counters and histograms.
+// Logging (see Main.java) tells us *what* happened; metrics tell us *how often* and *how long*.
+//
+// Usage:
+//   Metrics.counter("inputter.lines").add(contents.size());
+//   Metrics.histogram("inputter.read.nanos").record(System.nanoTime() - start);
+//   Metrics.report();
+//
+// Both counters and histograms can be updated from many threads at once without locking.
+public class Metrics {
+  private static ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+  private static ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+  private Metrics() { } // Only static methods, so no objects of this class
+
+  public static Counter counter(String theName) {
+    return counters.computeIfAbsent(theName, name -> new Counter());
+  }
+
+  public static Histogram histogram(String theName) {
+    return histograms.computeIfAbsent(theName, name -> new Histogram());
+  }
+
+  public static void report() {
+    for (Map.Entry<String, Counter> e : new TreeMap<>(counters).entrySet()) {
+      System.out.println(e.getKey() + " = " + e.getValue().get());
+    }
+    for (Map.Entry<String, Histogram> e : new TreeMap<>(histograms).entrySet()) {
+      System.out.println(e.getKey() + " " + e.getValue().toString());
+    }
+  }
+
+  public static class Counter {
+    private LongAdder myValue = new LongAdder();
+
+    public void increment() { myValue.increment(); }
+    public void add(long theAmount) { myValue.add(theAmount); }
+    public long get() { return myValue.sum(); }
+  }
+
+  // Values are sorted into buckets by powers of two: bucket b holds values in [2^(b-1), 2^b).
+  // That is coarse, but it costs one array update per value and never allocates.
+  public static class Histogram {
+    private AtomicLongArray myBuckets = new AtomicLongArray(64);
+    private LongAdder myCount = new LongAdder();
+    private LongAdder mySum = new LongAdder();
+
+    public void record(long theValue) {
+      long value = Math.max(0, theValue);
+      myBuckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+      myCount.increment();
+      mySum.add(value);
+    }
+
+    public long getCount() { return myCount.sum(); }
+
+    public double getMean() {
+      long count = getCount();
+      return (0 == count) ? 0 : (double) mySum.sum() / count;
+    }
+
+    // Upper bound of the bucket that holds the given percentile.
+    public long getPercentile(double thePercentile) {
+      long target = (long) Math.ceil(thePercentile / 100.0 * getCount());
+      long seen = 0;
+      for (int b = 0; b < myBuckets.length(); b++) {
+        seen += myBuckets.get(b);
+        if (seen >= target && 0 < seen) {
+          return (0 == b) ? 0 : (1L << b) - 1;
+        }
+      }
+      return Long.MAX_VALUE;
+    }
+
+    public String toString() {
+      return String.format("count=%d mean=%.0f p50<=%d p99<=%d",
+                           getCount(), getMean(), getPercentile(50), getPercentile(99));
+    }
+  }
+}
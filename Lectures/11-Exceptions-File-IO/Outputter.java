@@ -5,37 +5,75 @@ import java.io.PrintWriter;
 
 public class Outputter {
   public void basicPattern(String filename) {
+    OutputterWriteEvent event = new OutputterWriteEvent();
+    event.begin();
+    long start = System.nanoTime();
+    boolean succeeded = false;
     try {
       FileWriter fw = new FileWriter(filename);        
       fw.write("Some text\n");
       fw.append("Some more text\n");
       fw.close();
+      succeeded = true;
     } catch(IOException e) {
       System.err.println("Error writing file " + filename);
       e.printStackTrace();
     }
+    recordWrite(event, "basicPattern", filename, succeeded, start);
   }
 
   public void preferredPattern(String filename) {
+    OutputterWriteEvent event = new OutputterWriteEvent();
+    event.begin();
+    long start = System.nanoTime();
+    // The BufferedWriter does its real writing in close(), so we only know that we
+    // succeeded once the whole try statement, closing included, is done.
+    boolean succeeded = true;
     try(FileWriter fw = new FileWriter(filename);
         BufferedWriter buf = new BufferedWriter(fw); ) {
       buf.write("Some preferred text");
       buf.newLine();
       buf.write("Some more preferred text");
     } catch (IOException e) {
+      succeeded = false;
       System.err.println("Error writing file " + filename);
       e.printStackTrace();
     }
+    recordWrite(event, "preferredPattern", filename, succeeded, start);
   }
 
   public void otherWriter(String filename) {
+    OutputterWriteEvent event = new OutputterWriteEvent();
+    event.begin();
+    long start = System.nanoTime();
+    boolean succeeded = false;
     try ( PrintWriter out = new PrintWriter(filename)  ) {
       out.println("Some more more text");
       out.println("and yet some more");
+
+      // A PrintWriter never throws when writing fails. We have to ask it instead.
+      succeeded = !out.checkError();
+      if (!succeeded) {
+        System.err.println("Error writing file " + filename);
+      }
     } catch(IOException e) {
       System.err.println("Error writing file " + filename);
       e.printStackTrace();
     }
+    recordWrite(event, "otherWriter", filename, succeeded, start);
+  }
+
+  private void recordWrite(OutputterWriteEvent theEvent, String theMethod, String theFilename, boolean theSucceeded, long theStart) {
+    Metrics.histogram("outputter.write.nanos").record(System.nanoTime() - theStart);
+    Metrics.counter(theSucceeded ? "outputter.writes" : "outputter.failures").increment();
+
+    theEvent.end();
+    if (theEvent.shouldCommit()) {
+      theEvent.method = theMethod;
+      theEvent.filename = theFilename;
+      theEvent.succeeded = theSucceeded;
+      theEvent.commit();
+    }
   }
 
 
@@ -45,6 +83,8 @@ public class Outputter {
     o.basicPattern("tst.txt");
     o.preferredPattern("tst2.txt");
     o.otherWriter("tst3.txt");
+
+    Metrics.report();
   }
 
 }
\ No newline at end of file
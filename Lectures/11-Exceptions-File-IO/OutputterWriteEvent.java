@@ -0,0 +1,19 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// A JDK Flight Recorder event for one file written by Outputter.
+@Name("se.bth.example.OutputterWrite")
+@Label("Outputter Write")
+@Category({"PA1482", "File I/O"})
+public class OutputterWriteEvent extends Event {
+  @Label("Method")
+  String method;
+
+  @Label("File Name")
+  String filename;
+
+  @Label("Succeeded")
+  boolean succeeded;
+}
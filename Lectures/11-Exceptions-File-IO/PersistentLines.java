@@ -0,0 +1,174 @@
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// An immutable list of lines, used by Document to hand out snapshots.
+//
+// "Changing" a PersistentLines object gives you a *new* object and leaves the old one
+// exactly as it was. That means anybody can keep reading an old version for as long as
+// they like, without locks, while other threads move on to newer versions.
+//
+// Copying the whole list on every edit would be far too slow, so the lines are kept in
+// a balanced (AVL) tree where each node knows how many lines are below it. An edit only
+// creates new nodes along the path from the root to the edited position, O(log n) of
+// them; every other node is shared between the old and the new version.
+// Old versions that nobody refers to any more are simply garbage collected.
+public final class PersistentLines implements Iterable<String> {
+  public static final PersistentLines EMPTY = new PersistentLines(null, 0);
+
+  private final Node root;
+  private final long version;
+
+  private static final class Node {
+    final Node left;
+    final String value;
+    final Node right;
+    final int size;   // number of lines in this subtree
+    final int height;
+
+    Node(Node theLeft, String theValue, Node theRight) {
+      left = theLeft;
+      value = theValue;
+      right = theRight;
+      size = size(theLeft) + 1 + size(theRight);
+      height = Math.max(height(theLeft), height(theRight)) + 1;
+    }
+  }
+
+  private PersistentLines(Node theRoot, long theVersion) {
+    root = theRoot;
+    version = theVersion;
+  }
+
+  public int size() {
+    return size(root);
+  }
+
+  // Every edit gives a version number one higher than the one it was made from.
+  public long getVersion() {
+    return version;
+  }
+
+  public String get(int position) {
+    checkIndex(position, size());
+    Node n = root;
+    while (true) {
+      int leftSize = size(n.left);
+      if (position < leftSize) {
+        n = n.left;
+      } else if (position > leftSize) {
+        position -= leftSize + 1;
+        n = n.right;
+      } else {
+        return n.value;
+      }
+    }
+  }
+
+  public PersistentLines insert(int position, String text) {
+    checkIndex(position, size() + 1); // Inserting just after the last line is allowed
+    return new PersistentLines(insert(root, position, text), version + 1);
+  }
+
+  public PersistentLines remove(int position) {
+    checkIndex(position, size());
+    return new PersistentLines(remove(root, position), version + 1);
+  }
+
+  public Iterator<String> iterator() {
+    return new Iterator<String>() {
+      private ArrayDeque<Node> path = new ArrayDeque<>();
+      { pushLeft(root); }
+
+      private void pushLeft(Node n) {
+        for (; null != n; n = n.left) {
+          path.push(n);
+        }
+      }
+
+      public boolean hasNext() {
+        return !path.isEmpty();
+      }
+
+      public String next() {
+        if (path.isEmpty()) {
+          throw new NoSuchElementException();
+        }
+        Node n = path.pop();
+        pushLeft(n.right);
+        return n.value;
+      }
+    };
+  }
+
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (String line : this) {
+      sb.append(line).append("\n");
+    }
+    return sb.toString();
+  }
+
+  private static void checkIndex(int position, int limit) {
+    if (0 > position || position >= limit) {
+      throw new IndexOutOfBoundsException("Position " + position + " is outside Document bounds");
+    }
+  }
+
+  private static int size(Node n) { return (null == n) ? 0 : n.size; }
+  private static int height(Node n) { return (null == n) ? 0 : n.height; }
+
+  private static Node insert(Node n, int position, String text) {
+    if (null == n) {
+      return new Node(null, text, null);
+    }
+    int leftSize = size(n.left);
+    if (position <= leftSize) {
+      return balance(insert(n.left, position, text), n.value, n.right);
+    } else {
+      return balance(n.left, n.value, insert(n.right, position - leftSize - 1, text));
+    }
+  }
+
+  private static Node remove(Node n, int position) {
+    int leftSize = size(n.left);
+    if (position < leftSize) {
+      return balance(remove(n.left, position), n.value, n.right);
+    } else if (position > leftSize) {
+      return balance(n.left, n.value, remove(n.right, position - leftSize - 1));
+    } else if (null == n.left) {
+      return n.right;
+    } else if (null == n.right) {
+      return n.left;
+    } else {
+      // Replace this line with the first line of the right subtree
+      Node first = n.right;
+      while (null != first.left) {
+        first = first.left;
+      }
+      return balance(n.left, first.value, remove(n.right, 0));
+    }
+  }
+
+  // Build a node from the given parts, rotating if one side has become
+  // two levels taller than the other. After a single insert or remove this
+  // is all that is needed to keep the tree balanced.
+  private static Node balance(Node l, String v, Node r) {
+    if (height(l) > height(r) + 1) {
+      if (height(l.left) >= height(l.right)) {
+        return new Node(l.left, l.value, new Node(l.right, v, r));
+      } else {
+        Node lr = l.right;
+        return new Node(new Node(l.left, l.value, lr.left), lr.value, new Node(lr.right, v, r));
+      }
+    } else if (height(r) > height(l) + 1) {
+      if (height(r.right) >= height(r.left)) {
+        return new Node(new Node(l, v, r.left), r.value, r.right);
+      } else {
+        Node rl = r.left;
+        return new Node(new Node(l, v, rl.left), rl.value, new Node(rl.right, r.value, r.right));
+      }
+    }
+    return new Node(l, v, r);
+  }
+}
@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+// Summarises a JDK Flight Recorder recording: our own events (see InputterReadEvent,
+// OutputterWriteEvent, DocumentEditEvent, and the events in lectures 03 and 07),
+// where the CPU samples land, and where allocations come from.
+//
+// Make a recording with the Workload driver, which keeps Inputter, Outputter and
+// Document busy long enough for the profiler to collect samples:
+//   java -XX:StartFlightRecording=filename=sample.jfr,settings=profile Workload
+// and then summarise it:
+//   java RecordingSummary sample.jfr
+public class RecordingSummary {
+  private static final String OUR_EVENTS = "se.bth.example.";
+
+  private Map<String, Stats> myEvents = new HashMap<>();
+  private Map<String, Long> myCpuSamples = new HashMap<>();
+  private Map<String, Long> myAllocations = new HashMap<>();
+
+  private static class Stats {
+    long count;
+    Duration total = Duration.ZERO;
+    Duration max = Duration.ZERO;
+
+    void add(Duration theDuration) {
+      count++;
+      total = total.plus(theDuration);
+      if (0 < theDuration.compareTo(max)) {
+        max = theDuration;
+      }
+    }
+  }
+
+  public void read(Path theFile) throws IOException {
+    for (RecordedEvent e : RecordingFile.readAllEvents(theFile)) {
+      String type = e.getEventType().getName();
+      if (type.startsWith(OUR_EVENTS)) {
+        myEvents.computeIfAbsent(type.substring(OUR_EVENTS.length()), t -> new Stats()).add(e.getDuration());
+      } else if (type.equals("jdk.ExecutionSample")) {
+        myCpuSamples.merge(topFrame(e.getStackTrace()), 1L, Long::sum);
+      } else if (type.equals("jdk.ObjectAllocationSample")) {
+        myAllocations.merge(topFrame(e.getStackTrace()), e.getLong("weight"), Long::sum);
+      }
+    }
+  }
+
+  // The first frame that is our own code, rather than somewhere inside the JDK.
+  private static String topFrame(RecordedStackTrace theStack) {
+    if (null == theStack) {
+      return "<no stack trace>";
+    }
+    for (RecordedFrame f : theStack.getFrames()) {
+      String className = f.getMethod().getType().getName();
+      if (!className.startsWith("java.") && !className.startsWith("jdk.") && !className.startsWith("sun.")) {
+        return className + "." + f.getMethod().getName() + "()";
+      }
+    }
+    return "<JDK internal>";
+  }
+
+  public void print(int theTop) {
+    System.out.println("== Events ==");
+    System.out.printf("%-20s %8s %14s %14s %14s%n", "event", "count", "total ms", "mean us", "max us");
+    List<Map.Entry<String, Stats>> events = new ArrayList<>(myEvents.entrySet());
+    events.sort((a, b) -> b.getValue().total.compareTo(a.getValue().total)); // Most time first
+    for (Map.Entry<String, Stats> e : events) {
+      Stats s = e.getValue();
+      System.out.printf("%-20s %8d %14.3f %14.3f %14.3f%n", e.getKey(), s.count,
+                        s.total.toNanos() / 1e6, s.total.toNanos() / 1e3 / s.count, s.max.toNanos() / 1e3);
+    }
+
+    System.out.println();
+    System.out.println("== CPU samples (top " + theTop + ") ==");
+    printTop(myCpuSamples, theTop, "samples");
+
+    System.out.println();
+    System.out.println("== Allocations (top " + theTop + ") ==");
+    printTop(myAllocations, theTop, "bytes");
+  }
+
+  private static void printTop(Map<String, Long> theCounts, int theTop, String theUnit) {
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(theCounts.entrySet());
+    entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+    for (Map.Entry<String, Long> e : entries.subList(0, Math.min(theTop, entries.size()))) {
+      System.out.printf("%14d %s  %s%n", e.getValue(), theUnit, e.getKey());
+    }
+  }
+
+  public static void main(String [] args) {
+    if (1 > args.length) {
+      System.err.println("Usage: java RecordingSummary <recording.jfr>");
+      return;
+    }
+
+    RecordingSummary summary = new RecordingSummary();
+    try {
+      summary.read(Paths.get(args[0]));
+      summary.print(10);
+    } catch (IOException e) {
+      System.err.println("Error reading recording " + args[0]);
+      e.printStackTrace();
+    }
+  }
+}